@@ -4,6 +4,8 @@ import com.couchbase.lite.support.Base64;
 import com.couchbase.test.lite.*;
 
 import com.couchbase.lite.internal.Body;
+import com.couchbase.lite.mockserver.MockDispatcher;
+import com.couchbase.lite.mockserver.MockHelper;
 import com.couchbase.lite.replicator.Replication;
 import com.couchbase.lite.router.*;
 import com.couchbase.lite.router.Router;
@@ -29,6 +31,7 @@ import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -87,6 +90,17 @@ public abstract class LitePerfTestCase extends LiteTestCase {
         return;
     }
 
+    /**
+     * @return the config.json section for the running test class, or an empty object if
+     * there is none.
+     */
+    protected JSONObject getTestConfig() {
+        String[] tempArray = getClass().getName().split("\\.");
+        String className = tempArray[tempArray.length - 1];
+        JSONObject testConfig = (perfConfig == null) ? null : perfConfig.optJSONObject(className);
+        return (testConfig == null) ? new JSONObject() : testConfig;
+    }
+
     protected String getReplicationProtocol() {
         return new String("http");
     }
@@ -296,6 +310,53 @@ public abstract class LitePerfTestCase extends LiteTestCase {
         }
     }
 
+    /**
+     * Apply the simulated link conditions from this test's config.json section
+     * ("latency_ms" and "bytes_per_second", both optional) to a mock server.
+     */
+    public void applyMockLinkConditions(MockDispatcher dispatcher) {
+        JSONObject testConfig = getTestConfig();
+        dispatcher.setLatencyMs(testConfig.optLong("latency_ms", 0));
+        dispatcher.setBytesPerSecond(testConfig.optInt("bytes_per_second", 0));
+    }
+
+    /**
+     * For each replication stage (_changes, _bulk_get, etc) the mock server saw, log the number
+     * of requests and the span from the first to the last request arriving.  Requests for
+     * individual documents are grouped together under "doc".
+     */
+    public void logMockStageStats(String tag, MockDispatcher dispatcher) {
+        Map<String, List<Long>> stageTimes = new HashMap<String, List<Long>>();
+        Map<String, List<Long>> dispatchTimes = dispatcher.getDispatchTimes();
+        synchronized (dispatchTimes) {
+            for (String pathRegex : dispatchTimes.keySet()) {
+                String stage = getMockStageName(pathRegex);
+                List<Long> times = stageTimes.get(stage);
+                if (times == null) {
+                    times = new ArrayList<Long>();
+                    stageTimes.put(stage, times);
+                }
+                times.addAll(dispatchTimes.get(pathRegex));
+            }
+        }
+        for (String stage : stageTimes.keySet()) {
+            List<Long> times = stageTimes.get(stage);
+            Collections.sort(times);
+            long span = times.get(times.size() - 1) - times.get(0);
+            Log.v("PerformanceStats", tag + ", stage " + stage + ": requests " + times.size() +
+                    ", first to last request " + span + "ms");
+        }
+    }
+
+    private static String getMockStageName(String pathRegex) {
+        if (pathRegex.equals(MockHelper.PATH_REGEX_CHECKPOINT)) {
+            return "checkpoint";
+        } else if (pathRegex.startsWith("/db/_")) {
+            return pathRegex.substring("/db/".length()).split("[^a-z_]")[0];
+        }
+        return "doc";
+    }
+
     public boolean isSyncGateway(URL remote) {
         return (remote.getPort() == 4984 || remote.getPort() == 4984);
     }
@@ -4,12 +4,15 @@ import com.squareup.okhttp.mockwebserver.Dispatcher;
 import com.squareup.okhttp.mockwebserver.MockResponse;
 import com.squareup.okhttp.mockwebserver.RecordedRequest;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Custom dispatcher which allows to queue up MockResponse objects
@@ -33,6 +36,18 @@ public class MockDispatcher extends Dispatcher {
     // add these headers to every request
     private Map<String, String> headers;
 
+    // Map where the key is a path regex, (eg, "/_changes/*), and
+    // the value is the time (in ms) each request matching it was dispatched.
+    private Map<String, List<Long>> dispatchTimesMap;
+
+    // simulated link conditions applied to every matched request, see setLatencyMs()
+    // and setBytesPerSecond().  bytesPerSecond is applied with MockResponse.throttleBody()
+    private long latencyMs;
+    private int bytesPerSecond;
+
+    // print every request and response body to stdout?
+    private boolean verbose;
+
     public enum ServerType { SYNC_GW, COUCHDB }
 
     public MockDispatcher() {
@@ -41,6 +56,8 @@ public class MockDispatcher extends Dispatcher {
         recordedRequestQueueMap = new ConcurrentHashMap<String, BlockingQueue<RecordedRequest>>();
         recordedReponseMap = new ConcurrentHashMap<RecordedRequest, MockResponse>();
         headers = new HashMap<String, String>();
+        dispatchTimesMap = new ConcurrentHashMap<String, List<Long>>();
+        verbose = true;
     }
 
     public Map<String, String> getHeaders() {
@@ -51,6 +68,26 @@ public class MockDispatcher extends Dispatcher {
         this.headers = headers;
     }
 
+    /**
+     * Add a fixed latency, in milliseconds, before every matched response.
+     * This is in addition to any delay the SmartMockResponse asks for.
+     */
+    public void setLatencyMs(long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
+    /**
+     * Cap the rate at which response bodies are written, or 0 for no cap.  MockWebServer
+     * writes the body in chunks of this many bytes, sleeping one second after each chunk.
+     */
+    public void setBytesPerSecond(int bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
     public void setServerType(ServerType serverType) {
         switch (serverType) {
             case SYNC_GW:
@@ -63,10 +100,15 @@ public class MockDispatcher extends Dispatcher {
 
     @Override
     public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
-        System.out.println(String.format("Request: %s", request));
+        if (verbose) {
+            System.out.println(String.format("Request: %s", request));
+        }
         for(String pathRegex: queueMap.keySet()){
             if (regexMatches(pathRegex, request.getPath())) {
                 recordRequest(pathRegex, request);
+                if (latencyMs > 0) {
+                    Thread.sleep(latencyMs);
+                }
                 BlockingQueue<SmartMockResponse> responseQueue = queueMap.get(pathRegex);
                 if (responseQueue == null) {
                     String msg = String.format("No queue found for pathRegex: %s", pathRegex);
@@ -83,8 +125,13 @@ public class MockDispatcher extends Dispatcher {
                         System.out.println(String.format("Finished delaying response %s for %d (path: %s)", smartMockResponse, smartMockResponse.delayMs(), pathRegex));
                     }
                     MockResponse mockResponse = smartMockResponse.generateMockResponse(request);
-                    System.out.println(String.format("Response: %s", mockResponse.getBody()));
+                    if (verbose) {
+                        System.out.println(String.format("Response: %s", mockResponse.getBody()));
+                    }
                     addHeaders(mockResponse);
+                    if (bytesPerSecond > 0) {
+                        mockResponse.throttleBody(bytesPerSecond, 1, TimeUnit.SECONDS);
+                    }
                     recordedReponseMap.put(request, mockResponse);
                     return mockResponse;
                 } else {
@@ -194,6 +241,14 @@ public class MockDispatcher extends Dispatcher {
         }
     }
 
+    /**
+     * @return a map where the key is a path regex and the value is the time (in ms) each
+     * request matching it was dispatched, in the order they arrived.
+     */
+    public Map<String, List<Long>> getDispatchTimes() {
+        return dispatchTimesMap;
+    }
+
     public boolean verifyAllRecordedRequestsTaken() {
         for (String pathRegex : recordedRequestQueueMap.keySet()) {
             BlockingQueue<RecordedRequest> queue = recordedRequestQueueMap.get(pathRegex);
@@ -210,6 +265,7 @@ public class MockDispatcher extends Dispatcher {
     public void reset() {
         recordedRequestQueueMap.clear();
         queueMap.clear();
+        dispatchTimesMap.clear();
     }
 
     private void recordRequest(String pathRegex, RecordedRequest request) {
@@ -219,6 +275,15 @@ public class MockDispatcher extends Dispatcher {
             recordedRequestQueueMap.put(pathRegex, queue);
         }
         queue.add(request);
+
+        synchronized (dispatchTimesMap) {
+            List<Long> dispatchTimes = dispatchTimesMap.get(pathRegex);
+            if (dispatchTimes == null) {
+                dispatchTimes = new ArrayList<Long>();
+                dispatchTimesMap.put(pathRegex, dispatchTimes);
+            }
+            dispatchTimes.add(System.currentTimeMillis());
+        }
     }
 
     private void addHeaders(MockResponse mockResponse) {
@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2014 Couchbase, Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.couchbase.lite.performance2;
+
+import com.couchbase.lite.LitePerfTestCase;
+import com.couchbase.lite.mockserver.MockDispatcher;
+import com.couchbase.lite.mockserver.MockDocumentGet;
+import com.couchbase.lite.mockserver.MockHelper;
+import com.couchbase.lite.mockserver.MockPreloadedPullTarget;
+import com.couchbase.lite.mockserver.SmartMockResponse;
+import com.couchbase.lite.replicator.Replication;
+import com.couchbase.lite.util.Log;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Pull replication from the local mock server, with the latency and bandwidth set in
+// config.json.  The mock poses as CouchDB, so unlike Test06_PullReplication against
+// Sync Gateway (which uses _bulk_get), this measures the one GET per document path.
+public class Test31_MockPullReplication extends LitePerfTestCase {
+
+    public static final String TAG = "Test31_MockPullReplication";
+    private static final String _propertyValue = "1";
+
+    public double runOne(final int numberOfDocuments, final int sizeOfDocuments) throws Exception {
+        final StringBuffer bigObj = new StringBuffer(sizeOfDocuments);
+        for (int i = 0; i < sizeOfDocuments; i++) {
+            bigObj.append(_propertyValue);
+        }
+
+        MockDispatcher dispatcher = new MockDispatcher();
+        dispatcher.setServerType(MockDispatcher.ServerType.COUCHDB);
+        dispatcher.setVerbose(false);
+        applyMockLinkConditions(dispatcher);
+
+        // serve every doc in a single _changes response, since this is a one-shot pull
+        MockPreloadedPullTarget pullTarget = new MockPreloadedPullTarget(dispatcher, numberOfDocuments, numberOfDocuments) {
+            @Override
+            protected List<MockDocumentGet.MockDocument> getMockDocuments() {
+                List<MockDocumentGet.MockDocument> mockDocs = super.getMockDocuments();
+                for (MockDocumentGet.MockDocument mockDoc : mockDocs) {
+                    Map<String, Object> jsonMap = MockHelper.generateRandomJsonMap();
+                    jsonMap.put("bigString", bigObj.toString());
+                    mockDoc.setJsonMap(jsonMap);
+                }
+                return mockDocs;
+            }
+
+            @Override
+            protected void addMockDocuments(List<MockDocumentGet.MockDocument> mockDocs) {
+                // serve every doc from one path regex; a queue per doc would make the dispatcher
+                // match each request against N regexes and dominate the timings
+                final Map<String, MockResponse> docResponses = new HashMap<String, MockResponse>();
+                for (MockDocumentGet.MockDocument mockDoc : mockDocs) {
+                    docResponses.put(mockDoc.getDocId(), new MockDocumentGet(mockDoc).generateMockResponse());
+                }
+                dispatcher.enqueueResponse("/db/doc[0-9]+\\?.*", new SmartMockResponse() {
+                    @Override
+                    public MockResponse generateMockResponse(RecordedRequest request) {
+                        String path = request.getPath();
+                        String docId = path.substring("/db/".length(), path.indexOf('?'));
+                        MockResponse mockResponse = docResponses.get(docId);
+                        if (mockResponse == null) {
+                            mockResponse = new MockResponse();
+                            MockHelper.set404NotFoundJson(mockResponse);
+                        }
+                        return mockResponse;
+                    }
+
+                    @Override
+                    public boolean isSticky() {
+                        return true;
+                    }
+
+                    @Override
+                    public long delayMs() {
+                        return 0;
+                    }
+                });
+            }
+        };
+        MockWebServer server = pullTarget.getMockWebServer();
+        server.play();
+
+        long startMillis = System.currentTimeMillis();
+        final Replication repl = database.createPullReplication(server.getUrl("/db"));
+        repl.setContinuous(false);
+        Log.v("PerformanceStats",TAG+", Starting pull replication with: " + repl);
+        runReplication(repl);
+        double executionTime = Long.valueOf(System.currentTimeMillis()-startMillis);
+        Log.v("PerformanceStats",TAG+", Finished pull replication with: " + repl);
+
+        logMockStageStats(TAG, dispatcher);
+        server.shutdown();
+
+        if (database.getDocumentCount() != numberOfDocuments) {
+            Log.v("PerformanceStats",TAG+", Pulled "+database.getDocumentCount()+" of "+numberOfDocuments+" docs");
+            return failingPerfNumber;
+        }
+
+        double docsPerSecond = numberOfDocuments / (Math.max(executionTime, 1) / 1000);
+        Log.v("PerformanceStats",TAG+", "+executionTime+","+numberOfDocuments+","+sizeOfDocuments+","+String.format("%.2f",docsPerSecond)+" docs/sec");
+        return executionTime;
+    }
+}
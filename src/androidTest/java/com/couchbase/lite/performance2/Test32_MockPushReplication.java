@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2014 Couchbase, Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.couchbase.lite.performance2;
+
+import com.couchbase.lite.CouchbaseLiteException;
+import com.couchbase.lite.Document;
+import com.couchbase.lite.LitePerfTestCase;
+import com.couchbase.lite.TransactionalTask;
+import com.couchbase.lite.mockserver.MockBulkDocs;
+import com.couchbase.lite.mockserver.MockCheckpointPut;
+import com.couchbase.lite.mockserver.MockDispatcher;
+import com.couchbase.lite.mockserver.MockHelper;
+import com.couchbase.lite.mockserver.MockRevsDiff;
+import com.couchbase.lite.replicator.Replication;
+import com.couchbase.lite.util.Log;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Push replication of docs without attachments to the local mock server (_revs_diff and
+// _bulk_docs), with the latency and bandwidth set in config.json
+public class Test32_MockPushReplication extends LitePerfTestCase {
+
+    public static final String TAG = "Test32_MockPushReplication";
+    private static final String _propertyValue = "1";
+
+    public double runOne(final int numberOfDocuments, final int sizeOfDocuments) throws Exception {
+        final StringBuffer bigObj = new StringBuffer(sizeOfDocuments);
+        for (int i = 0; i < sizeOfDocuments; i++) {
+            bigObj.append(_propertyValue);
+        }
+
+        boolean success = database.runInTransaction(new TransactionalTask() {
+            public boolean run() {
+                for (int i = 0; i < numberOfDocuments; i++) {
+                    Map<String,Object> props = new HashMap<String,Object>();
+                    props.put("bigString", bigObj.toString());
+                    props.put("i", i);
+                    Document doc = database.createDocument();
+                    try {
+                        doc.putProperties(props);
+                    } catch (CouchbaseLiteException cblex) {
+                        Log.v("PerformanceStats",TAG+", Failed to create doc "+i,cblex);
+                        return false;
+                    }
+                }
+                return true;
+            }
+        });
+        assertTrue(success);
+
+        MockDispatcher dispatcher = new MockDispatcher();
+        dispatcher.setServerType(MockDispatcher.ServerType.SYNC_GW);
+        dispatcher.setVerbose(false);
+        applyMockLinkConditions(dispatcher);
+        MockWebServer server = MockHelper.getMockWebServer(dispatcher);
+
+        // checkpoint GET response w/ 404 + respond to all PUT Checkpoint requests
+        MockCheckpointPut mockCheckpointPut = new MockCheckpointPut();
+        mockCheckpointPut.setSticky(true);
+        dispatcher.enqueueResponse(MockHelper.PATH_REGEX_CHECKPOINT, mockCheckpointPut);
+
+        // _revs_diff response -- everything missing
+        MockRevsDiff mockRevsDiff = new MockRevsDiff();
+        mockRevsDiff.setSticky(true);
+        dispatcher.enqueueResponse(MockHelper.PATH_REGEX_REVS_DIFF, mockRevsDiff);
+
+        // _bulk_docs response -- everything stored
+        MockBulkDocs mockBulkDocs = new MockBulkDocs();
+        mockBulkDocs.setSticky(true);
+        dispatcher.enqueueResponse(MockHelper.PATH_REGEX_BULK_DOCS, mockBulkDocs);
+
+        server.play();
+
+        long startMillis = System.currentTimeMillis();
+        final Replication repl = database.createPushReplication(server.getUrl("/db"));
+        repl.setContinuous(false);
+        Log.v("PerformanceStats",TAG+", Starting push operation with: " + repl);
+        runReplication(repl);
+        double executionTime = Long.valueOf(System.currentTimeMillis()-startMillis);
+        Log.v("PerformanceStats",TAG+", Push operation finished with: " + repl);
+
+        logMockStageStats(TAG, dispatcher);
+        server.shutdown();
+
+        if (repl.getCompletedChangesCount() != numberOfDocuments) {
+            Log.v("PerformanceStats",TAG+", Pushed "+repl.getCompletedChangesCount()+" of "+numberOfDocuments+" docs");
+            return failingPerfNumber;
+        }
+
+        double docsPerSecond = numberOfDocuments / (Math.max(executionTime, 1) / 1000);
+        Log.v("PerformanceStats",TAG+", "+executionTime+","+numberOfDocuments+","+sizeOfDocuments+","+String.format("%.2f",docsPerSecond)+" docs/sec");
+        return executionTime;
+    }
+}
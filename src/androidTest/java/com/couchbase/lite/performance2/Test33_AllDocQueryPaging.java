@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2014 Couchbase, Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.couchbase.lite.performance2;
+
+import com.couchbase.lite.CouchbaseLiteException;
+import com.couchbase.lite.Document;
+import com.couchbase.lite.LitePerfTestCase;
+import com.couchbase.lite.Query;
+import com.couchbase.lite.QueryEnumerator;
+import com.couchbase.lite.QueryRow;
+import com.couchbase.lite.TransactionalTask;
+import com.couchbase.lite.util.Log;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Pages through all docs, like an infinite scroll list.  Measures paging by seeking to the
+// last docID seen (startKey + skip 1), and logs paging with a growing skip for comparison.
+public class Test33_AllDocQueryPaging extends LitePerfTestCase {
+
+    public static final String TAG = "Test33_AllDocQueryPaging";
+    private static final String _propertyValue = "1";
+
+    private int runCount = 0;
+
+    public double runOne(final int numberOfDocuments, final int sizeOfDocuments) throws CouchbaseLiteException {
+        final StringBuffer bigObj = new StringBuffer(sizeOfDocuments);
+        for (int i = 0; i < sizeOfDocuments; i++) {
+            bigObj.append(_propertyValue);
+        }
+
+        boolean success = database.runInTransaction(new TransactionalTask() {
+            public boolean run() {
+                for (int i = 0; i < numberOfDocuments; i++) {
+                    Map<String,Object> props = new HashMap<String,Object>();
+                    props.put("name", bigObj.toString());
+                    props.put("apt", i);
+                    Document doc = database.createDocument();
+                    try {
+                        doc.putProperties(props);
+                    } catch (CouchbaseLiteException cblex) {
+                        Log.v("PerformanceStats",TAG+", Failed to create doc "+props,cblex);
+                        return false;
+                    }
+                }
+                return true;
+            }
+        });
+        assertTrue(success);
+
+        int pageSize = getTestConfig().optInt("page_size", 100);
+
+        // alternate which pass runs first, so neither always gets the page cache the other warmed
+        double skipExecutionTime;
+        double executionTime;
+        if (runCount++ % 2 == 0) {
+            skipExecutionTime = pageWithSkip(numberOfDocuments, pageSize);
+            executionTime = pageWithStartKey(numberOfDocuments, pageSize);
+        } else {
+            executionTime = pageWithStartKey(numberOfDocuments, pageSize);
+            skipExecutionTime = pageWithSkip(numberOfDocuments, pageSize);
+        }
+
+        Log.v("PerformanceStats",TAG+", skip paging "+skipExecutionTime+","+numberOfDocuments+","+sizeOfDocuments);
+        Log.v("PerformanceStats",TAG+", "+executionTime+","+numberOfDocuments+","+sizeOfDocuments);
+        return executionTime;
+    }
+
+    // page with skip: sqlite still walks every skipped row, so deep pages get slower
+    private double pageWithSkip(int numberOfDocuments, int pageSize) throws CouchbaseLiteException {
+        long startMillis = System.currentTimeMillis();
+        int numRows = 0;
+        for (int skip = 0; ; skip += pageSize) {
+            Query query = database.createAllDocumentsQuery();
+            query.setSkip(skip);
+            query.setLimit(pageSize);
+            QueryEnumerator rowEnum = query.run();
+            if (rowEnum.getCount() == 0) {
+                break;
+            }
+            while (rowEnum.hasNext()) {
+                QueryRow row = rowEnum.next();
+                String docId = row.getDocumentId();
+                assertNotNull(docId);
+                numRows++;
+            }
+        }
+        double executionTime = Long.valueOf(System.currentTimeMillis()-startMillis);
+        assertEquals(numberOfDocuments, numRows);
+        return executionTime;
+    }
+
+    // page by seeking: start at the last docID of the previous page and skip just that row
+    private double pageWithStartKey(int numberOfDocuments, int pageSize) throws CouchbaseLiteException {
+        long startMillis = System.currentTimeMillis();
+        int numRows = 0;
+        String lastDocId = null;
+        while (true) {
+            Query query = database.createAllDocumentsQuery();
+            if (lastDocId != null) {
+                query.setStartKey(lastDocId);
+                query.setSkip(1);
+            }
+            query.setLimit(pageSize);
+            QueryEnumerator rowEnum = query.run();
+            if (rowEnum.getCount() == 0) {
+                break;
+            }
+            while (rowEnum.hasNext()) {
+                QueryRow row = rowEnum.next();
+                String docId = row.getDocumentId();
+                assertNotNull(docId);
+                lastDocId = docId;
+                numRows++;
+            }
+        }
+        double executionTime = Long.valueOf(System.currentTimeMillis()-startMillis);
+        assertEquals(numberOfDocuments, numRows);
+        return executionTime;
+    }
+}